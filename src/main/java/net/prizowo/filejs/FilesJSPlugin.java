@@ -5,6 +5,7 @@ import dev.latvian.mods.kubejs.script.BindingsEvent;
 import dev.latvian.mods.kubejs.script.ScriptType;
 import dev.latvian.mods.kubejs.event.EventGroup;
 import dev.latvian.mods.kubejs.event.EventHandler;
+import net.prizowo.filejs.kubejs.FileEventDispatcher;
 import net.prizowo.filejs.kubejs.FileEventJS;
 import net.prizowo.filejs.kubejs.FilesWrapper;
 
@@ -25,6 +26,7 @@ public class FilesJSPlugin extends KubeJSPlugin {
     public static final EventHandler FILE_SIZE_THRESHOLD = GROUP.server("fileSizeThreshold", () -> FileEventJS.class);
     public static final EventHandler FILE_PATTERN_MATCHED = GROUP.server("filePatternMatched", () -> FileEventJS.class);
     public static final EventHandler FILE_CONTENT_CHANGED_SIGNIFICANTLY = GROUP.server("fileContentChangedSignificantly", () -> FileEventJS.class);
+    public static final EventHandler FILE_BATCH_COMPLETED = GROUP.server("batchCompleted", () -> FileEventJS.class);
 
     @Override
     public void registerBindings(BindingsEvent event) {
@@ -38,4 +40,9 @@ public class FilesJSPlugin extends KubeJSPlugin {
         Filesjs.LOGGER.info("Registering FilesJS events");
         GROUP.register();
     }
+
+    @Override
+    public void clearCaches() {
+        FileEventDispatcher.invalidate();
+    }
 }
\ No newline at end of file
@@ -1,6 +1,16 @@
 package net.prizowo.filejs;
 
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.OnDatapackSyncEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
 import net.minecraftforge.fml.common.Mod;
+import net.prizowo.filejs.kubejs.FileEventDispatcher;
+import net.prizowo.filejs.kubejs.FileMonitor;
+import net.prizowo.filejs.kubejs.KeyValueStore;
+import net.prizowo.filejs.kubejs.RandomAccessHandle;
+import net.prizowo.filejs.kubejs.RollingLogWriter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -10,5 +20,23 @@ public class Filesjs {
 
     public Filesjs() {
         LOGGER.info("FilesJS mod initialized!");
+        // Scripts may call FilesJS while they are still being evaluated, before their handlers exist
+        MinecraftForge.EVENT_BUS.addListener((ServerStartedEvent event) -> FileEventDispatcher.invalidate());
+        MinecraftForge.EVENT_BUS.addListener((OnDatapackSyncEvent event) -> {
+            if (event.getPlayer() == null) {
+                FileEventDispatcher.invalidate();
+            }
+        });
+        MinecraftForge.EVENT_BUS.addListener((TickEvent.ServerTickEvent event) -> {
+            if (event.phase == TickEvent.Phase.END) {
+                KeyValueStore.flushAll();
+            }
+        });
+        MinecraftForge.EVENT_BUS.addListener((ServerStoppingEvent event) -> {
+            RollingLogWriter.closeAll();
+            RandomAccessHandle.closeAll();
+            KeyValueStore.closeAll();
+            FileMonitor.stopAll();
+        });
     }
 }
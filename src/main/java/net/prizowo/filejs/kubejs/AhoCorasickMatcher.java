@@ -0,0 +1,91 @@
+package net.prizowo.filejs.kubejs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+public class AhoCorasickMatcher {
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<Integer> failure = new ArrayList<>();
+    private final List<List<String>> outputs = new ArrayList<>();
+
+    public AhoCorasickMatcher(Collection<String> patterns) {
+        newNode();
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = transitions.get(node).get(c);
+                if (next == null) {
+                    next = newNode();
+                    transitions.get(node).put(c, next);
+                }
+                node = next;
+            }
+            outputs.get(node).add(pattern);
+        }
+        buildFailureLinks();
+    }
+
+    public boolean isEmpty() {
+        return transitions.get(0).isEmpty();
+    }
+
+    public Set<String> findAll(CharSequence text) {
+        Set<String> found = new LinkedHashSet<>();
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, text.charAt(i));
+            found.addAll(outputs.get(node));
+        }
+        return found;
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            Integer next = transitions.get(node).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = failure.get(node);
+        }
+    }
+
+    private void buildFailureLinks() {
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(0).values()) {
+            failure.set(child, 0);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(node).entrySet()) {
+                int child = edge.getValue();
+                int fallback = step(failure.get(node), edge.getKey());
+                failure.set(child, fallback);
+                // A node also reports every pattern that ends at its failure target
+                outputs.get(child).addAll(outputs.get(fallback));
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newNode() {
+        transitions.add(new HashMap<>());
+        failure.add(0);
+        outputs.add(new ArrayList<>());
+        return transitions.size() - 1;
+    }
+}
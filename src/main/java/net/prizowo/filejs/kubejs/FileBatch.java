@@ -0,0 +1,340 @@
+package net.prizowo.filejs.kubejs;
+
+import com.google.gson.JsonObject;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.server.ServerLifecycleHooks;
+import net.prizowo.filejs.FilesJSPlugin;
+import net.prizowo.filejs.Filesjs;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class FileBatch {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FilesJS-Batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private enum Kind {
+        WRITE, APPEND, COPY, MOVE, DELETE, CREATE_DIRECTORY
+    }
+
+    private record Operation(Kind kind, String path, String target, String content) {
+    }
+
+    @FunctionalInterface
+    private interface Undo {
+        void run() throws IOException;
+    }
+
+    private final Function<String, Path> resolver;
+    private final List<Operation> operations = new ArrayList<>();
+    private boolean fileEvents = false;
+    private boolean submitted = false;
+
+    FileBatch(Function<String, Path> resolver) {
+        this.resolver = resolver;
+    }
+
+    public FileBatch writeFile(String path, String content) {
+        return add(new Operation(Kind.WRITE, path, null, content));
+    }
+
+    public FileBatch appendFile(String path, String content) {
+        return add(new Operation(Kind.APPEND, path, null, content));
+    }
+
+    public FileBatch copy(String source, String target) {
+        return add(new Operation(Kind.COPY, source, target, null));
+    }
+
+    public FileBatch move(String source, String target) {
+        return add(new Operation(Kind.MOVE, source, target, null));
+    }
+
+    public FileBatch delete(String path) {
+        return add(new Operation(Kind.DELETE, path, null, null));
+    }
+
+    public FileBatch createDirectory(String path) {
+        return add(new Operation(Kind.CREATE_DIRECTORY, path, null, null));
+    }
+
+    public FileBatch withFileEvents() {
+        fileEvents = true;
+        return this;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public void execute() {
+        execute(null);
+    }
+
+    public synchronized void execute(Consumer<Map<String, Object>> callback) {
+        if (submitted) {
+            throw new IllegalStateException("Batch has already been executed");
+        }
+        submitted = true;
+        List<Operation> snapshot = List.copyOf(operations);
+        EXECUTOR.execute(() -> run(snapshot, callback));
+    }
+
+    private synchronized FileBatch add(Operation operation) {
+        if (submitted) {
+            throw new IllegalStateException("Batch has already been executed");
+        }
+        operations.add(operation);
+        return this;
+    }
+
+    private void run(List<Operation> batch, Consumer<Map<String, Object>> callback) {
+        long start = System.nanoTime();
+        Deque<Undo> undo = new ArrayDeque<>();
+        String id = UUID.randomUUID().toString();
+        Path journal = resolver.apply("kubejs/.batch/" + id);
+        String[] eventTypes = new String[batch.size()];
+        // Paths whose state before the batch an undo entry can already restore
+        Set<Path> saved = new HashSet<>();
+        String error = null;
+
+        try {
+            // Directories are created in sequence, since an earlier delete or move may remove one a later step needs
+            Set<Path> ensured = new HashSet<>();
+            for (int i = 0; i < batch.size(); i++) {
+                Operation operation = batch.get(i);
+                Path directory = directoryFor(operation);
+                if (directory != null && ensured.add(directory)) {
+                    createDirectories(directory, undo);
+                }
+                eventTypes[i] = apply(operation, journal, undo, saved);
+                if (operation.kind() == Kind.DELETE || operation.kind() == Kind.MOVE) {
+                    Path removed = resolver.apply(operation.path());
+                    ensured.removeIf(ensuredDirectory -> ensuredDirectory.startsWith(removed));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Filesjs.LOGGER.error("Error executing file batch, rolling back " + undo.size() + " changes", e);
+            error = e.toString();
+            rollback(undo);
+        } finally {
+            deleteJournal(journal);
+        }
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("id", id);
+        summary.put("success", error == null);
+        summary.put("operations", batch.size());
+        summary.put("durationMs", (System.nanoTime() - start) / 1_000_000L);
+        if (error != null) {
+            summary.put("error", error);
+        }
+
+        boolean success = error == null;
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) {
+            return;
+        }
+        server.execute(() -> {
+            if (success && fileEvents) {
+                for (int i = 0; i < batch.size(); i++) {
+                    postFileEvent(batch.get(i), eventTypes[i]);
+                }
+            }
+            FileEventDispatcher.post(FilesJSPlugin.FILE_BATCH_COMPLETED, "batch/" + id, toJson(summary),
+                success ? "batch_completed" : "batch_failed");
+            if (callback != null) {
+                callback.accept(summary);
+            }
+        });
+    }
+
+    // The directory a write, copy or move lands in, or the one createDirectory asks for
+    private Path directoryFor(Operation operation) {
+        return switch (operation.kind()) {
+            case WRITE, APPEND -> resolver.apply(operation.path()).getParent();
+            case COPY, MOVE -> resolver.apply(operation.target()).getParent();
+            case CREATE_DIRECTORY -> resolver.apply(operation.path());
+            case DELETE -> null;
+        };
+    }
+
+    private void createDirectories(Path directory, Deque<Undo> undo) throws IOException {
+        Path missing = directory;
+        while (missing.getParent() != null && !Files.exists(missing.getParent())) {
+            missing = missing.getParent();
+        }
+        if (Files.exists(missing)) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path created = missing;
+        undo.push(() -> deleteTree(created));
+    }
+
+    // Returns the event type the operation is reported with
+    private String apply(Operation operation, Path journal, Deque<Undo> undo, Set<Path> saved) throws IOException {
+        Path path = resolver.apply(operation.path());
+        Path target = operation.target() == null ? path : resolver.apply(operation.target());
+        try (PathLocks.Held lock = PathLocks.lock(path, operation.kind() != Kind.COPY, target, true)) {
+            return applyLocked(operation, path, journal, undo, saved);
+        }
+    }
+
+    private String applyLocked(Operation operation, Path path, Path journal, Deque<Undo> undo, Set<Path> saved) throws IOException {
+        switch (operation.kind()) {
+            case WRITE -> {
+                boolean existed = Files.exists(path);
+                preserve(path, journal, undo, saved);
+                FileCompression.write(path, operation.content().getBytes(StandardCharsets.UTF_8), false);
+                return existed ? "changed" : "created";
+            }
+            case APPEND -> {
+                boolean existed = Files.exists(path);
+                if (existed && !saved.contains(path) && FileCompression.byExtension(path) != FileCompression.Format.DEFLATE) {
+                    // Plain and gzip appends only add bytes at the end, so cutting back to the old length undoes them
+                    long length = Files.size(path);
+                    undo.push(() -> truncate(path, length));
+                } else {
+                    preserve(path, journal, undo, saved);
+                }
+                FileCompression.write(path, operation.content().getBytes(StandardCharsets.UTF_8), true);
+                return existed ? "changed" : "created";
+            }
+            case COPY -> {
+                Path target = resolver.apply(operation.target());
+                preserve(target, journal, undo, saved);
+                Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+                return "copied";
+            }
+            case MOVE -> {
+                Path target = resolver.apply(operation.target());
+                preserve(target, journal, undo, saved);
+                Files.move(path, target, StandardCopyOption.REPLACE_EXISTING);
+                undo.push(() -> Files.move(target, path, StandardCopyOption.REPLACE_EXISTING));
+                // The moved content has to be saved again before anything later overwrites it
+                saved.remove(target);
+                return "moved";
+            }
+            case DELETE -> {
+                if (Files.isDirectory(path)) {
+                    Files.delete(path);
+                    undo.push(() -> Files.createDirectories(path));
+                    return "directory_deleted";
+                }
+                Path copy = journalPath(journal, undo);
+                Files.move(path, copy);
+                undo.push(() -> Files.move(copy, path, StandardCopyOption.REPLACE_EXISTING));
+                return "deleted";
+            }
+            case CREATE_DIRECTORY -> {
+                // Already created by run just before this step
+                return "directory_created";
+            }
+        }
+        throw new IllegalStateException("Unknown operation: " + operation.kind());
+    }
+
+    // Keeps a copy of whatever is at path now so it can be put back, or removes it if it did not exist.
+    // Only the first change to a path in the batch needs this, its undo runs last and restores the original
+    private void preserve(Path path, Path journal, Deque<Undo> undo, Set<Path> saved) throws IOException {
+        if (!saved.add(path)) {
+            return;
+        }
+        if (Files.exists(path)) {
+            Path copy = journalPath(journal, undo);
+            Files.copy(path, copy, StandardCopyOption.COPY_ATTRIBUTES);
+            undo.push(() -> Files.move(copy, path, StandardCopyOption.REPLACE_EXISTING));
+        } else {
+            undo.push(() -> Files.deleteIfExists(path));
+        }
+    }
+
+    private static void truncate(Path path, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private Path journalPath(Path journal, Deque<Undo> undo) throws IOException {
+        Files.createDirectories(journal);
+        return journal.resolve(String.valueOf(undo.size()));
+    }
+
+    private void rollback(Deque<Undo> undo) {
+        while (!undo.isEmpty()) {
+            try {
+                undo.pop().run();
+            } catch (IOException e) {
+                Filesjs.LOGGER.error("Error rolling back file batch", e);
+            }
+        }
+    }
+
+    private void deleteJournal(Path journal) {
+        try {
+            deleteTree(journal);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error cleaning up file batch journal: " + journal, e);
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(root)) {
+            for (Path path : stream.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static void postFileEvent(Operation operation, String type) {
+        switch (type) {
+            case "created" -> FileEventDispatcher.post(FilesJSPlugin.FILE_CREATED, operation.path(), operation.content(), type);
+            case "changed" -> FileEventDispatcher.post(FilesJSPlugin.FILE_CHANGED, operation.path(), operation.content(), type);
+            case "copied" -> FileEventDispatcher.post(FilesJSPlugin.FILE_COPIED, operation.target(), type);
+            case "moved" -> FileEventDispatcher.post(FilesJSPlugin.FILE_MOVED, operation.target(), type);
+            case "deleted" -> FileEventDispatcher.post(FilesJSPlugin.FILE_DELETED, operation.path(), type);
+            case "directory_deleted" -> FileEventDispatcher.post(FilesJSPlugin.DIRECTORY_DELETED, operation.path(), type);
+            case "directory_created" -> FileEventDispatcher.post(FilesJSPlugin.DIRECTORY_CREATED, operation.path(), type);
+        }
+    }
+
+    private static String toJson(Map<String, Object> summary) {
+        JsonObject json = new JsonObject();
+        summary.forEach((key, value) -> {
+            if (value instanceof Number number) {
+                json.addProperty(key, number);
+            } else if (value instanceof Boolean bool) {
+                json.addProperty(key, bool);
+            } else {
+                json.addProperty(key, String.valueOf(value));
+            }
+        });
+        return json.toString();
+    }
+}
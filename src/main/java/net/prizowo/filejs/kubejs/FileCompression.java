@@ -0,0 +1,174 @@
+package net.prizowo.filejs.kubejs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public final class FileCompression {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private static volatile int level = Deflater.DEFAULT_COMPRESSION;
+
+    enum Format {
+        NONE, GZIP, DEFLATE
+    }
+
+    private FileCompression() {
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    public static void setLevel(int newLevel) {
+        if (newLevel != Deflater.DEFAULT_COMPRESSION && (newLevel < Deflater.NO_COMPRESSION || newLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9, or -1 for the default");
+        }
+        level = newLevel;
+    }
+
+    static Format byExtension(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz") || name.endsWith(".gzip")) {
+            return Format.GZIP;
+        }
+        if (name.endsWith(".deflate") || name.endsWith(".zz")) {
+            return Format.DEFLATE;
+        }
+        return Format.NONE;
+    }
+
+    static Format byMagic(byte[] head, int length) {
+        if (length < 2) {
+            return Format.NONE;
+        }
+        int first = head[0] & 0xFF;
+        int second = head[1] & 0xFF;
+        // Only gzip is sniffed; zlib headers such as "x^" are ordinary text, so deflate is recognised by extension alone
+        return first == 0x1F && second == 0x8B ? Format.GZIP : Format.NONE;
+    }
+
+    private static Format detect(Path path) throws IOException {
+        Format format = byExtension(path);
+        if (format != Format.NONE || !Files.exists(path)) {
+            return format;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] head = in.readNBytes(2);
+            return byMagic(head, head.length);
+        }
+    }
+
+    public static boolean isCompressed(Path path) throws IOException {
+        return detect(path) != Format.NONE;
+    }
+
+    public static byte[] readAllBytes(Path path) throws IOException {
+        // One read for plain files; the magic is checked on the bytes already in memory
+        byte[] raw = Files.readAllBytes(path);
+        Format format = byExtension(path);
+        if (format == Format.NONE) {
+            format = byMagic(raw, raw.length);
+        }
+        if (format == Format.NONE) {
+            return raw;
+        }
+
+        try (InputStream in = decompress(new ByteArrayInputStream(raw), format)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(BUFFER_SIZE, raw.length));
+            byte[] buffer = BUFFERS.get();
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    public static InputStream openInput(Path path) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(Files.newInputStream(path), STREAM_BUFFER_SIZE);
+        Format format = byExtension(path);
+        if (format == Format.NONE) {
+            byte[] head = new byte[2];
+            in.mark(head.length);
+            int length = in.readNBytes(head, 0, head.length);
+            in.reset();
+            format = byMagic(head, length);
+        }
+        return format == Format.NONE ? in : decompress(in, format);
+    }
+
+    public static BufferedReader openReader(Path path) throws IOException {
+        return new BufferedReader(new InputStreamReader(openInput(path), StandardCharsets.UTF_8));
+    }
+
+    public static void write(Path path, byte[] data, boolean append) throws IOException {
+        // By extension only, so plain appends never open the file just to sniff it
+        Format format = byExtension(path);
+
+        if (format == Format.NONE) {
+            if (append) {
+                Files.write(path, data, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+            } else {
+                Files.write(path, data);
+            }
+            return;
+        }
+
+        if (format == Format.GZIP) {
+            // Concatenated gzip members are a valid gzip file, so appending never rewrites existing data
+            OpenOption[] options = append
+                ? new OpenOption[]{StandardOpenOption.APPEND, StandardOpenOption.CREATE}
+                : new OpenOption[0];
+            try (OutputStream out = new LeveledGZIPOutputStream(Files.newOutputStream(path, options), level)) {
+                out.write(data);
+            }
+            return;
+        }
+
+        // zlib streams cannot be concatenated, so an append has to rewrite the whole file
+        byte[] content = data;
+        if (append && Files.exists(path) && Files.size(path) > 0) {
+            byte[] existing = readAllBytes(path);
+            content = new byte[existing.length + data.length];
+            System.arraycopy(existing, 0, content, 0, existing.length);
+            System.arraycopy(data, 0, content, existing.length, data.length);
+        }
+        Deflater deflater = new Deflater(level);
+        try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(path), deflater, STREAM_BUFFER_SIZE)) {
+            out.write(content);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static InputStream decompress(InputStream in, Format format) throws IOException {
+        return format == Format.GZIP
+            ? new GZIPInputStream(in, STREAM_BUFFER_SIZE)
+            : new InflaterInputStream(in);
+    }
+
+    private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+        LeveledGZIPOutputStream(OutputStream out, int level) throws IOException {
+            super(out, STREAM_BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package net.prizowo.filejs.kubejs;
+
+import dev.latvian.mods.kubejs.event.EventHandler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class FileEventDispatcher {
+    private static final Map<EventHandler, Boolean> LISTENERS = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface ContentSupplier {
+        String get() throws IOException;
+    }
+
+    private FileEventDispatcher() {
+    }
+
+    public static boolean hasListeners(EventHandler handler) {
+        // Scripts may still be registering handlers before the server is up, so nothing is cached until then
+        if (ServerLifecycleHooks.getCurrentServer() == null) {
+            return handler.hasListeners();
+        }
+        return LISTENERS.computeIfAbsent(handler, EventHandler::hasListeners);
+    }
+
+    public static void invalidate() {
+        LISTENERS.clear();
+    }
+
+    public static void post(EventHandler handler, String path, String type) {
+        if (hasListeners(handler)) {
+            dispatch(handler, path, null, type);
+        }
+    }
+
+    public static void post(EventHandler handler, String path, String content, String type) {
+        if (hasListeners(handler)) {
+            dispatch(handler, path, content, type);
+        }
+    }
+
+    // Content is only produced once we know a script is going to receive it.
+    public static void post(EventHandler handler, String path, ContentSupplier content, String type) throws IOException {
+        if (hasListeners(handler)) {
+            dispatch(handler, path, content.get(), type);
+        }
+    }
+
+    private static void dispatch(EventHandler handler, String path, String content, String type) {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) {
+            return;
+        }
+        handler.post(new FileEventJS(path, content, type, null, server, server.overworld()));
+    }
+}
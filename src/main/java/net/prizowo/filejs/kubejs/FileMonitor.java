@@ -0,0 +1,261 @@
+package net.prizowo.filejs.kubejs;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.server.ServerLifecycleHooks;
+import net.prizowo.filejs.FilesJSPlugin;
+import net.prizowo.filejs.Filesjs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class FileMonitor {
+    private static final int MAX_LINE_LENGTH = 1024 * 1024;
+    private static final int HEAD_LENGTH = 64;
+    private static final Map<Path, FileMonitor> MONITORS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FilesJS-Monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String path;
+    private final Path file;
+    private final long[] thresholds;
+    private final AhoCorasickMatcher matcher;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private ScheduledFuture<?> task;
+
+    // What identifies the file being followed, so a rotated-in replacement is read from the start
+    private Object fileKey;
+    private FileTime creationTime;
+    private byte[] head;
+    private volatile long offset;
+    private long lastSize;
+
+    private FileMonitor(String path, Path file, Map<String, Object> options) throws IOException {
+        this.path = path;
+        this.file = file;
+        this.thresholds = getList(options, "thresholds").stream()
+            .filter(Number.class::isInstance)
+            .mapToLong(value -> ((Number) value).longValue())
+            .sorted()
+            .toArray();
+        this.matcher = new AhoCorasickMatcher(getList(options, "patterns").stream()
+            .map(String::valueOf)
+            .toList());
+
+        boolean fromStart = options != null && Boolean.TRUE.equals(options.get("fromStart"));
+        if (Files.exists(file)) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            remember(attributes, attributes.fileKey() == null ? readHead() : null);
+            lastSize = fromStart ? 0 : attributes.size();
+            offset = lastSize;
+        }
+    }
+
+    static FileMonitor start(String path, Path file, Map<String, Object> options) throws IOException {
+        FileMonitor monitor = new FileMonitor(path, file, options);
+        Object interval = options == null ? null : options.get("intervalMs");
+        long intervalMs = interval instanceof Number ? Math.max(50, ((Number) interval).longValue()) : 1000;
+
+        FileMonitor previous = MONITORS.put(file, monitor);
+        if (previous != null) {
+            previous.cancel();
+        }
+        // The first poll waits one interval so handlers registered later in the same script load are seen
+        monitor.task = SCHEDULER.scheduleWithFixedDelay(monitor::poll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        return monitor;
+    }
+
+    static boolean stop(Path file) {
+        FileMonitor monitor = MONITORS.remove(file);
+        if (monitor != null) {
+            monitor.cancel();
+        }
+        return monitor != null;
+    }
+
+    public static void stopAll() {
+        MONITORS.values().forEach(FileMonitor::cancel);
+        MONITORS.clear();
+    }
+
+    public void stop() {
+        MONITORS.remove(file, this);
+        cancel();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    private void cancel() {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    private void poll() {
+        // Nothing can be posted before the server is up, and skipping content on a listener check made
+        // that early would lose it for good, so the file is left untouched until then
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) {
+            return;
+        }
+
+        try {
+            BasicFileAttributes attributes;
+            byte[] currentHead;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                currentHead = attributes.fileKey() == null ? readHead() : null;
+            } catch (NoSuchFileException e) {
+                // Rotated away and not recreated yet
+                return;
+            }
+
+            long size = attributes.size();
+            if (isReplaced(attributes, currentHead) || size < offset) {
+                offset = 0;
+                lastSize = 0;
+                partialLine.reset();
+            }
+            remember(attributes, currentHead);
+
+            List<String> crossed = new ArrayList<>();
+            for (long threshold : thresholds) {
+                if (lastSize < threshold && size >= threshold) {
+                    crossed.add(String.valueOf(threshold));
+                }
+            }
+            lastSize = size;
+
+            List<String> matches = new ArrayList<>();
+            if (size > offset) {
+                if (matcher.isEmpty() || !FileEventDispatcher.hasListeners(FilesJSPlugin.FILE_PATTERN_MATCHED)) {
+                    offset = size;
+                    partialLine.reset();
+                } else {
+                    scan(size, matches);
+                }
+            }
+
+            if (!crossed.isEmpty() || !matches.isEmpty()) {
+                server.execute(() -> {
+                    crossed.forEach(threshold -> FileEventDispatcher.post(FilesJSPlugin.FILE_SIZE_THRESHOLD, path, threshold, "size_threshold"));
+                    matches.forEach(match -> FileEventDispatcher.post(FilesJSPlugin.FILE_PATTERN_MATCHED, path, match, "pattern_matched"));
+                });
+            }
+        } catch (IOException | RuntimeException e) {
+            Filesjs.LOGGER.error("Error monitoring file: " + path, e);
+        }
+    }
+
+    private boolean isReplaced(BasicFileAttributes attributes, byte[] currentHead) {
+        if (attributes.fileKey() != null || fileKey != null) {
+            return !Objects.equals(attributes.fileKey(), fileKey);
+        }
+        // No file key on this platform (Windows). Creation time alone is not enough, since a file recreated
+        // under the same name shortly after a delete can inherit it, so the first bytes are compared as well
+        if (head == null || !Objects.equals(attributes.creationTime(), creationTime)) {
+            return true;
+        }
+        int length = Math.min(head.length, currentHead.length);
+        return !Arrays.equals(head, 0, length, currentHead, 0, length);
+    }
+
+    private void remember(BasicFileAttributes attributes, byte[] currentHead) {
+        fileKey = attributes.fileKey();
+        creationTime = attributes.creationTime();
+        head = currentHead;
+    }
+
+    private byte[] readHead() throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(HEAD_LENGTH);
+        }
+    }
+
+    // Only the bytes appended since the last poll are read; an unfinished last line is carried over
+    private void scan(long size, List<String> matches) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (offset < size) {
+                readBuffer.clear();
+                readBuffer.limit((int) Math.min(readBuffer.capacity(), size - offset));
+                int read = channel.read(readBuffer, offset);
+                if (read <= 0) {
+                    break;
+                }
+                offset += read;
+
+                byte[] bytes = readBuffer.array();
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        partialLine.write(bytes, lineStart, i - lineStart);
+                        matchLine(matches);
+                        lineStart = i + 1;
+                    }
+                }
+                partialLine.write(bytes, lineStart, read - lineStart);
+                if (partialLine.size() > MAX_LINE_LENGTH) {
+                    matchLine(matches);
+                }
+            }
+        }
+    }
+
+    private void matchLine(List<String> matches) {
+        String line = partialLine.toString(StandardCharsets.UTF_8);
+        partialLine.reset();
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        Set<String> patterns = matcher.findAll(line);
+        if (!patterns.isEmpty()) {
+            matches.add(toJson(line, patterns));
+        }
+    }
+
+    private static String toJson(String line, Set<String> patterns) {
+        JsonArray matched = new JsonArray();
+        patterns.forEach(matched::add);
+        JsonObject json = new JsonObject();
+        json.addProperty("line", line);
+        json.add("patterns", matched);
+        return json.toString();
+    }
+
+    private static List<?> getList(Map<String, Object> options, String key) {
+        Object value = options == null ? null : options.get(key);
+        return value instanceof List<?> list ? list : List.of();
+    }
+}
@@ -9,6 +9,7 @@ import net.prizowo.filejs.Filesjs;
 import net.minecraftforge.fml.loading.FMLPaths;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.security.NoSuchAlgorithmException;
@@ -35,7 +36,9 @@ public class FilesWrapper {
     public String readFile(String path) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            return new String(Files.readAllBytes(normalizedPath), StandardCharsets.UTF_8);
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath)) {
+                return new String(FileCompression.readAllBytes(normalizedPath), StandardCharsets.UTF_8);
+            }
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error reading file: " + path, e);
             throw new RuntimeException("Failed to read file: " + path, e);
@@ -45,7 +48,13 @@ public class FilesWrapper {
     public List<String> readLines(String path) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            return Files.readAllLines(normalizedPath, StandardCharsets.UTF_8);
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath);
+                 BufferedReader reader = FileCompression.openReader(normalizedPath)) {
+                return reader.lines().collect(Collectors.toList());
+            }
+        } catch (UncheckedIOException e) {
+            Filesjs.LOGGER.error("Error reading lines from file: " + path, e);
+            throw new RuntimeException("Failed to read lines from file: " + path, e);
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error reading lines from file: " + path, e);
             throw new RuntimeException("Failed to read lines from file: " + path, e);
@@ -55,17 +64,16 @@ public class FilesWrapper {
     public void writeFile(String path, String content) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            Files.write(normalizedPath, content.getBytes(StandardCharsets.UTF_8));
-            
-            boolean isNewFile = !Files.exists(normalizedPath);
-            
-            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-            ServerLevel level = server.overworld();
-            
+            boolean isNewFile;
+            try (PathLocks.Held lock = PathLocks.write(normalizedPath)) {
+                isNewFile = !Files.exists(normalizedPath);
+                FileCompression.write(normalizedPath, content.getBytes(StandardCharsets.UTF_8), false);
+            }
+
             if (isNewFile) {
-                FilesJSPlugin.FILE_CREATED.post(new FileEventJS(path, content, "created", null, server, level));
+                FileEventDispatcher.post(FilesJSPlugin.FILE_CREATED, path, content, "created");
             } else {
-                FilesJSPlugin.FILE_CHANGED.post(new FileEventJS(path, content, "changed", null, server, level));
+                FileEventDispatcher.post(FilesJSPlugin.FILE_CHANGED, path, content, "changed");
             }
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error writing file: " + path, e);
@@ -76,7 +84,9 @@ public class FilesWrapper {
     public void writeLines(String path, List<String> lines) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            Files.write(normalizedPath, lines, StandardCharsets.UTF_8);
+            try (PathLocks.Held lock = PathLocks.write(normalizedPath)) {
+                FileCompression.write(normalizedPath, joinLines(lines), false);
+            }
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error writing lines to file: " + path, e);
             throw new RuntimeException("Failed to write lines to file: " + path, e);
@@ -86,14 +96,102 @@ public class FilesWrapper {
     public void appendFile(String path, String content) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            Files.write(normalizedPath, content.getBytes(StandardCharsets.UTF_8),
-                    StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+            try (PathLocks.Held lock = PathLocks.write(normalizedPath)) {
+                FileCompression.write(normalizedPath, content.getBytes(StandardCharsets.UTF_8), true);
+            }
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error appending to file: " + path, e);
             throw new RuntimeException("Failed to append to file: " + path, e);
         }
     }
 
+    public byte[] readBytes(String path) {
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath)) {
+                return Files.readAllBytes(normalizedPath);
+            }
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error reading bytes from file: " + path, e);
+            throw new RuntimeException("Failed to read bytes from file: " + path, e);
+        }
+    }
+
+    public byte[] readBytes(String path, long offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must not be negative");
+        }
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath);
+                 FileChannel channel = FileChannel.open(normalizedPath, StandardOpenOption.READ)) {
+                return RandomAccessHandle.readAt(channel, offset, length);
+            }
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error reading bytes from file: " + path, e);
+            throw new RuntimeException("Failed to read bytes from file: " + path, e);
+        }
+    }
+
+    public void writeBytes(String path, long offset, byte[] bytes) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            boolean isNewFile;
+            try (PathLocks.Held lock = PathLocks.write(normalizedPath)) {
+                isNewFile = !Files.exists(normalizedPath);
+                try (FileChannel channel = FileChannel.open(normalizedPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+                    RandomAccessHandle.writeAt(channel, offset, bytes);
+                }
+            }
+
+            if (isNewFile) {
+                FileEventDispatcher.post(FilesJSPlugin.FILE_CREATED, path, "created");
+            } else {
+                FileEventDispatcher.post(FilesJSPlugin.FILE_CHANGED, path, "changed");
+            }
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error writing bytes to file: " + path, e);
+            throw new RuntimeException("Failed to write bytes to file: " + path, e);
+        }
+    }
+
+    public RandomAccessHandle openRandomAccess(String path, String mode) {
+        return openRandomAccess(path, mode, false);
+    }
+
+    public RandomAccessHandle openRandomAccess(String path, String mode, boolean mapped) {
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            return RandomAccessHandle.open(normalizedPath, mode, mapped);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error opening file for random access: " + path, e);
+            throw new RuntimeException("Failed to open file for random access: " + path, e);
+        }
+    }
+
+    public FileBatch batch() {
+        return new FileBatch(this::validateAndNormalizePath);
+    }
+
+    public Map<String, Object> getLockStats() {
+        return PathLocks.getStats();
+    }
+
+    public void setCompressionLevel(int level) {
+        FileCompression.setLevel(level);
+    }
+
+    private byte[] joinLines(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line).append(System.lineSeparator());
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
     public boolean exists(String path) {
         Path normalizedPath = validateAndNormalizePath(path);
         return Files.exists(normalizedPath);
@@ -103,9 +201,7 @@ public class FilesWrapper {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
             Files.createDirectories(normalizedPath);
-            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-            ServerLevel level = server.overworld();
-            FilesJSPlugin.DIRECTORY_CREATED.post(new FileEventJS(path, null, "directory_created", null, server, level));
+            FileEventDispatcher.post(FilesJSPlugin.DIRECTORY_CREATED, path, "directory_created");
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error creating directory: " + path, e);
             throw new RuntimeException("Failed to create directory: " + path, e);
@@ -115,18 +211,16 @@ public class FilesWrapper {
     public void delete(String path) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            boolean isDirectory = Files.isDirectory(normalizedPath);
-            
-            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-            ServerLevel level = server.overworld();
-            FileEventJS event = new FileEventJS(path, null, isDirectory ? "directory_deleted" : "deleted", null, server, level);
-            
-            Files.delete(normalizedPath);
+            boolean isDirectory;
+            try (PathLocks.Held lock = PathLocks.write(normalizedPath)) {
+                isDirectory = Files.isDirectory(normalizedPath);
+                Files.delete(normalizedPath);
+            }
             
             if (isDirectory) {
-                FilesJSPlugin.DIRECTORY_DELETED.post(event);
+                FileEventDispatcher.post(FilesJSPlugin.DIRECTORY_DELETED, path, "directory_deleted");
             } else {
-                FilesJSPlugin.FILE_DELETED.post(event);
+                FileEventDispatcher.post(FilesJSPlugin.FILE_DELETED, path, "deleted");
             }
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error deleting file: " + path, e);
@@ -165,13 +259,11 @@ public class FilesWrapper {
             Path sourcePath = validateAndNormalizePath(source);
             Path targetPath = validateAndNormalizePath(target);
             
-            FileEventJS event = new FileEventJS(target, null, "copied", null,
-                ServerLifecycleHooks.getCurrentServer(), 
-                ServerLifecycleHooks.getCurrentServer().overworld());
-            
-            Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            try (PathLocks.Held lock = PathLocks.lock(sourcePath, false, targetPath, true)) {
+                Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
             
-            FilesJSPlugin.FILE_COPIED.post(event);
+            FileEventDispatcher.post(FilesJSPlugin.FILE_COPIED, target, "copied");
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error copying file: " + source + " -> " + target, e);
             throw new RuntimeException("Failed to copy file: " + source + " -> " + target, e);
@@ -183,12 +275,12 @@ public class FilesWrapper {
             Path sourcePath = validateAndNormalizePath(source);
             Path targetPath = validateAndNormalizePath(target);
             
-            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            try (PathLocks.Held lock = PathLocks.lock(sourcePath, true, targetPath, true)) {
+                Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
             
-            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-            ServerLevel level = server.overworld();
-            String content = new String(Files.readAllBytes(targetPath), StandardCharsets.UTF_8);
-            FilesJSPlugin.FILE_MOVED.post(new FileEventJS(target, content, "moved", null, server, level));
+            FileEventDispatcher.post(FilesJSPlugin.FILE_MOVED, target,
+                () -> new String(Files.readAllBytes(targetPath), StandardCharsets.UTF_8), "moved");
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error moving file: " + source + " -> " + target, e);
             throw new RuntimeException("Failed to move file: " + source + " -> " + target, e);
@@ -199,10 +291,9 @@ public class FilesWrapper {
     public void appendLine(String path, String line) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            List<String> lines = new ArrayList<>();
-            lines.add(line);
-            Files.write(normalizedPath, lines, StandardCharsets.UTF_8,
-                    StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+            try (PathLocks.Held lock = PathLocks.write(normalizedPath)) {
+                FileCompression.write(normalizedPath, joinLines(List.of(line)), true);
+            }
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error appending line to file: " + path, e);
             throw new RuntimeException("Failed to append line to file: " + path, e);
@@ -210,6 +301,30 @@ public class FilesWrapper {
     }
 
 
+    public RollingLogWriter openLog(String path) {
+        return openLog(path, null);
+    }
+
+    public RollingLogWriter openLog(String path, Map<String, Object> options) {
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            return RollingLogWriter.open(normalizedPath, options);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error opening log: " + path, e);
+            throw new RuntimeException("Failed to open log: " + path, e);
+        }
+    }
+
+    public KeyValueStore openStore(String path) {
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            return KeyValueStore.open(normalizedPath);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error opening store: " + path, e);
+            throw new RuntimeException("Failed to open store: " + path, e);
+        }
+    }
+
     public void ensureDirectoryExists(String path) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
@@ -271,22 +386,64 @@ public class FilesWrapper {
     public List<String> readLastLines(String path, int n) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            List<String> allLines = Files.readAllLines(normalizedPath, StandardCharsets.UTF_8);
+            List<String> allLines;
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath);
+                 BufferedReader reader = FileCompression.openReader(normalizedPath)) {
+                allLines = reader.lines().collect(Collectors.toList());
+            }
             int start = Math.max(0, allLines.size() - n);
             return allLines.subList(start, allLines.size());
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             Filesjs.LOGGER.error("Error reading last lines: " + path, e);
             throw new RuntimeException("Failed to read last lines: " + path, e);
         }
     }
 
+    public List<String> readLineRange(String path, long from, int count) {
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath)) {
+                if (FileCompression.isCompressed(normalizedPath)) {
+                    // Compressed streams cannot be seeked into, so these are still read sequentially
+                    try (BufferedReader reader = FileCompression.openReader(normalizedPath)) {
+                        return reader.lines().skip(from).limit(count).collect(Collectors.toList());
+                    }
+                }
+                return LineIndex.get(normalizedPath).readLines(from, count);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            Filesjs.LOGGER.error("Error reading line range from file: " + path, e);
+            throw new RuntimeException("Failed to read line range from file: " + path, e);
+        }
+    }
+
+    public long countLines(String path) {
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath)) {
+                if (FileCompression.isCompressed(normalizedPath)) {
+                    try (BufferedReader reader = FileCompression.openReader(normalizedPath)) {
+                        return reader.lines().count();
+                    }
+                }
+                return LineIndex.get(normalizedPath).getLineCount();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            Filesjs.LOGGER.error("Error counting lines in file: " + path, e);
+            throw new RuntimeException("Failed to count lines in file: " + path, e);
+        }
+    }
+
     public List<String> searchInFile(String path, String searchTerm) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            return Files.lines(normalizedPath)
-                    .filter(line -> line.contains(searchTerm))
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath);
+                 BufferedReader reader = FileCompression.openReader(normalizedPath)) {
+                return reader.lines()
+                        .filter(line -> line.contains(searchTerm))
+                        .collect(Collectors.toList());
+            }
+        } catch (IOException | UncheckedIOException e) {
             Filesjs.LOGGER.error("Error searching in file: " + path, e);
             throw new RuntimeException("Failed to search in file: " + path, e);
         }
@@ -343,7 +500,9 @@ public class FilesWrapper {
                     try {
                         Path target = targetPath.resolve(sourcePath.relativize(source));
                         Files.createDirectories(target.getParent());
-                        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                        try (PathLocks.Held lock = PathLocks.lock(source, false, target, true)) {
+                            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                        }
                     } catch (IOException e) {
                         Filesjs.LOGGER.error("Error copying file: " + source, e);
                     }
@@ -365,11 +524,11 @@ public class FilesWrapper {
             validateAndNormalizePath(backupPath.toString());
             
             Files.createDirectories(backupDir);
-            Files.copy(sourcePath, backupPath, StandardCopyOption.REPLACE_EXISTING);
+            try (PathLocks.Held lock = PathLocks.lock(sourcePath, false, backupPath, true)) {
+                Files.copy(sourcePath, backupPath, StandardCopyOption.REPLACE_EXISTING);
+            }
             
-            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-            ServerLevel level = server.overworld();
-            FilesJSPlugin.FILE_BACKUP_CREATED.post(new FileEventJS(backupPath.toString(), null, "backup_created", null, server, level));
+            FileEventDispatcher.post(FilesJSPlugin.FILE_BACKUP_CREATED, backupPath.toString(), "backup_created");
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error creating backup: " + path, e);
             throw new RuntimeException("Failed to create backup: " + path, e);
@@ -397,15 +556,18 @@ public class FilesWrapper {
             
             List<String> mergedContent = new ArrayList<>();
             for (Path path : normalizedSourcePaths) {
-                mergedContent.addAll(Files.readAllLines(path, StandardCharsets.UTF_8));
+                try (PathLocks.Held lock = PathLocks.read(path)) {
+                    mergedContent.addAll(Files.readAllLines(path, StandardCharsets.UTF_8));
+                }
                 mergedContent.add("");
             }
 
-            Files.write(normalizedTargetPath, mergedContent, StandardCharsets.UTF_8);
+            try (PathLocks.Held lock = PathLocks.write(normalizedTargetPath)) {
+                Files.write(normalizedTargetPath, mergedContent, StandardCharsets.UTF_8);
+            }
             
-            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-            ServerLevel level = server.overworld();
-            FilesJSPlugin.FILES_MERGED.post(new FileEventJS(targetPath, String.join("\n", mergedContent), "merged", null, server, level));
+            FileEventDispatcher.post(FilesJSPlugin.FILES_MERGED, targetPath,
+                () -> String.join("\n", mergedContent), "merged");
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error merging files to: " + targetPath, e);
             throw new RuntimeException("Failed to merge files: " + targetPath, e);
@@ -415,9 +577,11 @@ public class FilesWrapper {
     public void replaceInFile(String path, String search, String replace) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            String content = new String(Files.readAllBytes(normalizedPath), StandardCharsets.UTF_8);
-            String newContent = content.replace(search, replace);
-            Files.write(normalizedPath, newContent.getBytes(StandardCharsets.UTF_8));
+            try (PathLocks.Held lock = PathLocks.write(normalizedPath)) {
+                String content = new String(Files.readAllBytes(normalizedPath), StandardCharsets.UTF_8);
+                String newContent = content.replace(search, replace);
+                Files.write(normalizedPath, newContent.getBytes(StandardCharsets.UTF_8));
+            }
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error replacing content in file: " + path, e);
             throw new RuntimeException("Failed to replace content in file: " + path, e);
@@ -427,7 +591,7 @@ public class FilesWrapper {
     public void processLargeFile(String path, Consumer<String> lineProcessor) {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
-            try (BufferedReader reader = Files.newBufferedReader(normalizedPath)) {
+            try (BufferedReader reader = FileCompression.openReader(normalizedPath)) {
                 String line;
                 while ((line = reader.readLine()) != null) {
                     lineProcessor.accept(line);
@@ -443,7 +607,10 @@ public class FilesWrapper {
         try {
             Path normalizedPath = validateAndNormalizePath(path);
             MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] hash = md.digest(Files.readAllBytes(normalizedPath));
+            byte[] hash;
+            try (PathLocks.Held lock = PathLocks.read(normalizedPath)) {
+                hash = md.digest(Files.readAllBytes(normalizedPath));
+            }
 
             StringBuilder hexString = new StringBuilder();
             for (byte b : hash) {
@@ -465,10 +632,12 @@ public class FilesWrapper {
             Path normalizedPath1 = validateAndNormalizePath(path1);
             Path normalizedPath2 = validateAndNormalizePath(path2);
 
-            return Arrays.equals(
-                Files.readAllBytes(normalizedPath1),
-                Files.readAllBytes(normalizedPath2)
-            );
+            try (PathLocks.Held lock = PathLocks.lock(normalizedPath1, false, normalizedPath2, false)) {
+                return Arrays.equals(
+                    Files.readAllBytes(normalizedPath1),
+                    Files.readAllBytes(normalizedPath2)
+                );
+            }
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error comparing files: " + path1 + " vs " + path2, e);
             throw new RuntimeException("Failed to compare files", e);
@@ -499,7 +668,9 @@ public class FilesWrapper {
                             }
                             zos.putNextEntry(new ZipEntry(relativePath));
                             if (!Files.isDirectory(path)) {
-                                Files.copy(path, zos);
+                                try (PathLocks.Held lock = PathLocks.read(path)) {
+                                    Files.copy(path, zos);
+                                }
                             }
                             zos.closeEntry();
                         } catch (IOException e) {
@@ -522,10 +693,6 @@ public class FilesWrapper {
     public void watchDirectory(String path, Consumer<Path> changeCallback) {
         Path normalizedPath = validateAndNormalizePath(path);
         
-        FileEventJS watchEvent = new FileEventJS(path, null, "watch_started", null,
-            ServerLifecycleHooks.getCurrentServer(),
-            ServerLifecycleHooks.getCurrentServer().overworld());
-        
         WatchService watchService;
         try {
             watchService = FileSystems.getDefault().newWatchService();
@@ -564,9 +731,7 @@ public class FilesWrapper {
             if (watchService != null) {
                 try {
                     watchService.close();
-                    MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-                    ServerLevel level = server.overworld();
-                    FilesJSPlugin.FILE_WATCH_STOPPED.post(new FileEventJS(path, null, "watch_stopped", null, server, level));
+                    FileEventDispatcher.post(FilesJSPlugin.FILE_WATCH_STOPPED, path, "watch_stopped");
                 } catch (IOException e) {
                     Filesjs.LOGGER.error("Error closing file watcher: " + path, e);
                     throw new RuntimeException("Failed to close file watcher: " + path, e);
@@ -593,20 +758,15 @@ public class FilesWrapper {
             
             watchDirectory(relativeParentDir, changedPath -> {
                 try {
+                    if (!FileEventDispatcher.hasListeners(FilesJSPlugin.FILE_CONTENT_CHANGED_SIGNIFICANTLY)) {
+                        return;
+                    }
                     if (changedPath.getFileName().equals(fileName) && Files.exists(changedPath)) {
                         String newContent = new String(Files.readAllBytes(changedPath), StandardCharsets.UTF_8);
                         double similarity = calculateSimilarity(originalContent, newContent);
                         if (1.0 - similarity > threshold) {
-                            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-                            ServerLevel level = server.overworld();
-                            FilesJSPlugin.FILE_CONTENT_CHANGED_SIGNIFICANTLY.post(new FileEventJS(
-                                path,
-                                newContent,
-                                "content_changed_significantly",
-                                null,
-                                server,
-                                level
-                            ));
+                            FileEventDispatcher.post(FilesJSPlugin.FILE_CONTENT_CHANGED_SIGNIFICANTLY, path,
+                                newContent, "content_changed_significantly");
                         }
                     }
                 } catch (IOException e) {
@@ -619,6 +779,21 @@ public class FilesWrapper {
         }
     }
 
+    public FileMonitor monitorFile(String path, Map<String, Object> options) {
+        try {
+            Path normalizedPath = validateAndNormalizePath(path);
+            return FileMonitor.start(path, normalizedPath, options);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error starting file monitor: " + path, e);
+            throw new RuntimeException("Failed to start file monitor: " + path, e);
+        }
+    }
+
+    public boolean stopMonitoring(String path) {
+        Path normalizedPath = validateAndNormalizePath(path);
+        return FileMonitor.stop(normalizedPath);
+    }
+
     private double calculateSimilarity(String text1, String text2) {
         if (text1 == null || text2 == null) {
             return 0.0;
@@ -696,18 +871,11 @@ public class FilesWrapper {
             Path backupPath = backupDir.resolve(backupName);
             validateAndNormalizePath(backupPath.toString());
 
-            Files.copy(sourcePath, backupPath, StandardCopyOption.REPLACE_EXISTING);
+            try (PathLocks.Held lock = PathLocks.lock(sourcePath, false, backupPath, true)) {
+                Files.copy(sourcePath, backupPath, StandardCopyOption.REPLACE_EXISTING);
+            }
 
-            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-            ServerLevel level = server.overworld();
-            FilesJSPlugin.FILE_BACKUP_CREATED.post(new FileEventJS(
-                backupPath.toString(),
-                null,
-                "backup_created",
-                null,
-                server,
-                level
-            ));
+            FileEventDispatcher.post(FilesJSPlugin.FILE_BACKUP_CREATED, backupPath.toString(), "backup_created");
 
             cleanupOldBackups(backupDir, 5);
         } catch (IOException e) {
@@ -749,13 +917,12 @@ public class FilesWrapper {
             Path sourcePath = validateAndNormalizePath(oldPath);
             Path targetPath = validateAndNormalizePath(newPath);
             
-            String content = new String(Files.readAllBytes(sourcePath), StandardCharsets.UTF_8);
-            
-            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            try (PathLocks.Held lock = PathLocks.lock(sourcePath, true, targetPath, true)) {
+                Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
             
-            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
-            ServerLevel level = server.overworld();
-            FilesJSPlugin.FILE_RENAMED.post(new FileEventJS(newPath, content, "renamed", null, server, level));
+            FileEventDispatcher.post(FilesJSPlugin.FILE_RENAMED, newPath,
+                () -> new String(Files.readAllBytes(targetPath), StandardCharsets.UTF_8), "renamed");
         } catch (IOException e) {
             Filesjs.LOGGER.error("Error renaming file: " + oldPath + " -> " + newPath, e);
             throw new RuntimeException("Failed to rename file: " + oldPath + " -> " + newPath, e);
@@ -0,0 +1,419 @@
+package net.prizowo.filejs.kubejs;
+
+import net.prizowo.filejs.Filesjs;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+public class KeyValueStore {
+    // Record layout: crc32, type, keyLength, valueLength, key, value
+    private static final int HEADER_SIZE = 13;
+    private static final byte TYPE_PUT = 0;
+    private static final byte TYPE_DELETE = 1;
+    private static final long MIN_COMPACTION_GARBAGE = 1024 * 1024;
+
+    private static final Map<Path, KeyValueStore> OPEN = new ConcurrentHashMap<>();
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "FilesJS-Store-Compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Entry(long offset, int keyLength, int valueLength) {
+        int recordLength() {
+            return HEADER_SIZE + keyLength + valueLength;
+        }
+    }
+
+    private final Path file;
+    private FileChannel channel;
+    private Map<String, Entry> index = new HashMap<>();
+    // Writes made since the last flush; a null value is a pending delete
+    private final Map<String, String> pending = new LinkedHashMap<>();
+    private long liveBytes;
+    private boolean compacting = false;
+    private boolean closed = false;
+
+    private KeyValueStore(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.deleteIfExists(compactionFile());
+        recover();
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    }
+
+    static KeyValueStore open(Path file) throws IOException {
+        synchronized (OPEN) {
+            KeyValueStore store = OPEN.get(file);
+            if (store == null) {
+                store = new KeyValueStore(file);
+                OPEN.put(file, store);
+            }
+            return store;
+        }
+    }
+
+    public static void flushAll() {
+        for (KeyValueStore store : OPEN.values()) {
+            try {
+                store.flush();
+            } catch (RuntimeException e) {
+                // I/O failures are logged by flush itself; anything else has not been reported yet
+                if (!(e.getCause() instanceof IOException)) {
+                    Filesjs.LOGGER.error("Error flushing store: " + store.getPath(), e);
+                }
+            }
+        }
+    }
+
+    public static void closeAll() {
+        OPEN.values().forEach(KeyValueStore::close);
+    }
+
+    public synchronized String get(String key) {
+        checkOpen();
+        checkKey(key);
+        if (pending.containsKey(key)) {
+            return pending.get(key);
+        }
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.valueLength());
+            long position = entry.offset() + HEADER_SIZE + entry.keyLength();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Record for key \"" + key + "\" is truncated");
+                }
+            }
+            return new String(buffer.array(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error reading key from store: " + file, e);
+            throw new RuntimeException("Failed to read key from store: " + file, e);
+        }
+    }
+
+    public synchronized void put(String key, String value) {
+        checkOpen();
+        checkKey(key);
+        if (value == null) {
+            delete(key);
+            return;
+        }
+        pending.put(key, value);
+    }
+
+    public synchronized void delete(String key) {
+        checkOpen();
+        checkKey(key);
+        if (index.containsKey(key)) {
+            pending.put(key, null);
+        } else {
+            pending.remove(key);
+        }
+    }
+
+    public synchronized boolean has(String key) {
+        checkOpen();
+        checkKey(key);
+        if (pending.containsKey(key)) {
+            return pending.get(key) != null;
+        }
+        return index.containsKey(key);
+    }
+
+    public synchronized List<String> keys() {
+        checkOpen();
+        List<String> keys = new ArrayList<>();
+        for (String key : index.keySet()) {
+            if (!pending.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        pending.forEach((key, value) -> {
+            if (value != null) {
+                keys.add(key);
+            }
+        });
+        return keys;
+    }
+
+    public synchronized int size() {
+        return keys().size();
+    }
+
+    public synchronized void flush() {
+        if (closed || pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            long base = channel.size();
+            List<byte[]> records = new ArrayList<>(pending.size());
+            Map<String, Entry> written = new HashMap<>();
+            long position = base;
+            for (Map.Entry<String, String> op : pending.entrySet()) {
+                byte[] keyBytes = op.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] valueBytes = op.getValue() == null ? new byte[0] : op.getValue().getBytes(StandardCharsets.UTF_8);
+                byte[] record = encode(op.getValue() == null ? TYPE_DELETE : TYPE_PUT, keyBytes, valueBytes);
+                records.add(record);
+                if (op.getValue() != null) {
+                    written.put(op.getKey(), new Entry(position, keyBytes.length, valueBytes.length));
+                }
+                position += record.length;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) (position - base));
+            records.forEach(buffer::put);
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, base + buffer.position());
+                }
+            } catch (IOException e) {
+                // Drop the partly written batch so the next flush does not append after a torn record
+                try {
+                    channel.truncate(base);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+
+            for (Map.Entry<String, String> op : pending.entrySet()) {
+                Entry previous = op.getValue() == null ? index.remove(op.getKey()) : index.put(op.getKey(), written.get(op.getKey()));
+                if (previous != null) {
+                    liveBytes -= previous.recordLength();
+                }
+                if (op.getValue() != null) {
+                    liveBytes += written.get(op.getKey()).recordLength();
+                }
+            }
+            pending.clear();
+
+            long garbage = channel.size() - liveBytes;
+            if (garbage > MIN_COMPACTION_GARBAGE && garbage > liveBytes) {
+                compact();
+            }
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error flushing store: " + file, e);
+            throw new RuntimeException("Failed to flush store: " + file, e);
+        }
+    }
+
+    public synchronized void compact() {
+        if (!closed && !compacting) {
+            compacting = true;
+            COMPACTOR.execute(this::doCompact);
+        }
+    }
+
+    private void doCompact() {
+        Map<String, Entry> snapshot;
+        long snapshotSize;
+        FileChannel source;
+        synchronized (this) {
+            if (closed) {
+                compacting = false;
+                return;
+            }
+            flush();
+            snapshot = new HashMap<>(index);
+            source = channel;
+            try {
+                snapshotSize = channel.size();
+            } catch (IOException e) {
+                compacting = false;
+                Filesjs.LOGGER.error("Error compacting store: " + file, e);
+                return;
+            }
+        }
+
+        Path target = compactionFile();
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Live records are copied without holding the lock, writers keep appending to the old log meanwhile
+            Map<String, Entry> compacted = new HashMap<>();
+            long position = 0;
+            for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+                Entry record = entry.getValue();
+                transferFully(source, record.offset(), record.recordLength(), out);
+                compacted.put(entry.getKey(), new Entry(position, record.keyLength(), record.valueLength()));
+                position += record.recordLength();
+            }
+
+            // Catch up with what was flushed during the copy and sync it, so the locked swap below only
+            // has a small tail left to move and never waits on the disk
+            long caughtUp;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                flush();
+                caughtUp = channel.size();
+            }
+            transferFully(source, snapshotSize, caughtUp - snapshotSize, out);
+            out.force(true);
+
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                flush();
+                transferFully(channel, caughtUp, channel.size() - caughtUp, out);
+
+                Map<String, Entry> rebuilt = new HashMap<>();
+                for (Map.Entry<String, Entry> entry : index.entrySet()) {
+                    Entry current = entry.getValue();
+                    rebuilt.put(entry.getKey(), current.offset() >= snapshotSize
+                        ? new Entry(current.offset() - snapshotSize + position, current.keyLength(), current.valueLength())
+                        : compacted.get(entry.getKey()));
+                }
+
+                Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel.close();
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                index = rebuilt;
+                liveBytes = rebuilt.values().stream().mapToLong(Entry::recordLength).sum();
+            }
+            // The last tail is no less durable than a normal flush, which does not sync either
+            out.force(false);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error compacting store: " + file, e);
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        OPEN.remove(file, this);
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error closing store: " + file, e);
+        }
+    }
+
+    public String getPath() {
+        return file.toString();
+    }
+
+    private void recover() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        long fileSize = Files.size(file);
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 65536))) {
+            while (position + HEADER_SIZE <= fileSize) {
+                int crc = in.readInt();
+                byte type = in.readByte();
+                int keyLength = in.readInt();
+                int valueLength = in.readInt();
+                long end = position + HEADER_SIZE + (long) keyLength + valueLength;
+                if ((type != TYPE_PUT && type != TYPE_DELETE) || keyLength < 0 || valueLength < 0 || end > fileSize) {
+                    break;
+                }
+
+                byte[] keyBytes = in.readNBytes(keyLength);
+                byte[] valueBytes = in.readNBytes(valueLength);
+                if (crc != checksum(type, keyBytes, valueBytes)) {
+                    break;
+                }
+
+                String key = new String(keyBytes, StandardCharsets.UTF_8);
+                Entry previous = type == TYPE_PUT
+                    ? index.put(key, new Entry(position, keyLength, valueLength))
+                    : index.remove(key);
+                if (previous != null) {
+                    liveBytes -= previous.recordLength();
+                }
+                if (type == TYPE_PUT) {
+                    liveBytes += HEADER_SIZE + keyLength + valueLength;
+                }
+                position = end;
+            }
+        }
+
+        if (position < fileSize) {
+            Filesjs.LOGGER.warn("Discarding " + (fileSize - position) + " bytes of incomplete or corrupt data at the end of store: " + file);
+            try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncate.truncate(position);
+            }
+        }
+    }
+
+    private Path compactionFile() {
+        return file.resolveSibling(file.getFileName() + ".compact");
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Store is closed: " + file);
+        }
+    }
+
+    private static void checkKey(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+    }
+
+    private static byte[] encode(byte type, byte[] keyBytes, byte[] valueBytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + valueBytes.length);
+        buffer.putInt(checksum(type, keyBytes, valueBytes));
+        buffer.put(type);
+        buffer.putInt(keyBytes.length);
+        buffer.putInt(valueBytes.length);
+        buffer.put(keyBytes);
+        buffer.put(valueBytes);
+        return buffer.array();
+    }
+
+    private static void transferFully(FileChannel from, long position, long count, FileChannel to) throws IOException {
+        long done = 0;
+        while (done < count) {
+            done += from.transferTo(position + done, count - done, to);
+        }
+    }
+
+    private static int checksum(byte type, byte[] keyBytes, byte[] valueBytes) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(8).putInt(keyBytes.length).putInt(valueBytes.length).flip());
+        crc.update(keyBytes);
+        crc.update(valueBytes);
+        return (int) crc.getValue();
+    }
+}
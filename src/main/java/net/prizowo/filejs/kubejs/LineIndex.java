@@ -0,0 +1,175 @@
+package net.prizowo.filejs.kubejs;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LineIndex {
+    private static final int STRIDE = 1024;
+    private static final int FINGERPRINT_SIZE = 64;
+    private static final int MAX_CACHED = 32;
+
+    private static final Map<Path, LineIndex> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, LineIndex> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private final Path file;
+    // checkpoints[k] is the byte offset where line k * STRIDE starts
+    private long[] checkpoints = new long[16];
+    private int checkpointCount = 1;
+    private long newlines;
+    private long lastLineStart;
+    private long indexedBytes;
+    private long lastModified;
+    private byte[] fingerprint = new byte[0];
+
+    private LineIndex(Path file) {
+        this.file = file;
+    }
+
+    static LineIndex get(Path file) throws IOException {
+        LineIndex index;
+        synchronized (CACHE) {
+            index = CACHE.computeIfAbsent(file, LineIndex::new);
+        }
+        synchronized (index) {
+            index.refresh();
+        }
+        return index;
+    }
+
+    public synchronized long getLineCount() {
+        return newlines + (indexedBytes > lastLineStart ? 1 : 0);
+    }
+
+    synchronized List<String> readLines(long from, int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (from < 0 || count <= 0 || from >= getLineCount()) {
+            return lines;
+        }
+
+        int checkpoint = (int) (from / STRIDE);
+        long skip = from - (long) checkpoint * STRIDE;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(checkpoints[checkpoint]);
+            long remaining = indexedBytes - checkpoints[checkpoint];
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            while (lines.size() < count && remaining > 0) {
+                int b = in.read();
+                if (b == -1) {
+                    break;
+                }
+                remaining--;
+
+                boolean endOfLine = b == '\n';
+                if (!endOfLine && skip == 0) {
+                    line.write(b);
+                }
+                if (endOfLine || remaining == 0) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        lines.add(decode(line));
+                    }
+                    line.reset();
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void refresh() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        if (size == indexedBytes && modified == lastModified) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Only growth can be an append; same size with a new mtime means it was rewritten in place
+            if (size <= indexedBytes || !Arrays.equals(fingerprint, readFingerprint(channel, indexedBytes))) {
+                reset();
+            }
+            scan(channel, size);
+        }
+        lastModified = modified;
+    }
+
+    // Continues from the last indexed byte, so an append-only file is only ever read once
+    private void scan(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = indexedBytes;
+        while (position < size) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), size - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    newlines++;
+                    lastLineStart = position + i + 1;
+                    if (newlines % STRIDE == 0) {
+                        addCheckpoint(lastLineStart);
+                    }
+                }
+            }
+            position += read;
+        }
+        indexedBytes = position;
+        fingerprint = readFingerprint(channel, indexedBytes);
+    }
+
+    private void reset() {
+        checkpoints = new long[16];
+        checkpointCount = 1;
+        newlines = 0;
+        lastLineStart = 0;
+        indexedBytes = 0;
+        fingerprint = new byte[0];
+    }
+
+    private void addCheckpoint(long offset) {
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+        }
+        checkpoints[checkpointCount++] = offset;
+    }
+
+    private static byte[] readFingerprint(FileChannel channel, long end) throws IOException {
+        int length = (int) Math.min(FINGERPRINT_SIZE, end);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, end - length + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.array();
+    }
+
+    private static String decode(ByteArrayOutputStream line) {
+        String text = line.toString(StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+}
@@ -0,0 +1,104 @@
+package net.prizowo.filejs.kubejs;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public final class PathLocks {
+    private static final int STRIPES = 64;
+    private static final ReentrantReadWriteLock[] LOCKS = new ReentrantReadWriteLock[STRIPES];
+
+    private static final LongAdder ACQUISITIONS = new LongAdder();
+    private static final LongAdder CONTENDED = new LongAdder();
+    private static final LongAdder WAIT_NANOS = new LongAdder();
+    private static final LongAccumulator MAX_WAIT_NANOS = new LongAccumulator(Math::max, 0);
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private PathLocks() {
+    }
+
+    public static Held read(Path path) {
+        Lock lock = LOCKS[stripe(path)].readLock();
+        acquire(lock);
+        return lock::unlock;
+    }
+
+    public static Held write(Path path) {
+        Lock lock = LOCKS[stripe(path)].writeLock();
+        acquire(lock);
+        return lock::unlock;
+    }
+
+    // Stripes are always taken in index order, so two threads locking the same pair cannot deadlock
+    public static Held lock(Path first, boolean writeFirst, Path second, boolean writeSecond) {
+        int a = stripe(first);
+        int b = stripe(second);
+        if (a == b) {
+            return writeFirst || writeSecond ? write(first) : read(first);
+        }
+
+        boolean firstIsLower = a < b;
+        Lock lower = lockFor(firstIsLower ? a : b, firstIsLower ? writeFirst : writeSecond);
+        Lock upper = lockFor(firstIsLower ? b : a, firstIsLower ? writeSecond : writeFirst);
+        acquire(lower);
+        try {
+            acquire(upper);
+        } catch (RuntimeException e) {
+            lower.unlock();
+            throw e;
+        }
+        return () -> {
+            upper.unlock();
+            lower.unlock();
+        };
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("acquisitions", ACQUISITIONS.sum());
+        stats.put("contended", CONTENDED.sum());
+        stats.put("totalWaitMs", TimeUnit.NANOSECONDS.toMillis(WAIT_NANOS.sum()));
+        stats.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(MAX_WAIT_NANOS.get()));
+        return stats;
+    }
+
+    private static void acquire(Lock lock) {
+        ACQUISITIONS.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+        CONTENDED.increment();
+        WAIT_NANOS.add(waited);
+        MAX_WAIT_NANOS.accumulate(waited);
+    }
+
+    private static Lock lockFor(int stripe, boolean write) {
+        return write ? LOCKS[stripe].writeLock() : LOCKS[stripe].readLock();
+    }
+
+    private static int stripe(Path path) {
+        int hash = path.toAbsolutePath().normalize().hashCode();
+        hash ^= hash >>> 16;
+        return hash & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,250 @@
+package net.prizowo.filejs.kubejs;
+
+import net.prizowo.filejs.Filesjs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RandomAccessHandle {
+    private static final Set<RandomAccessHandle> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean writable;
+    private MappedByteBuffer mapped;
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+    private RandomAccessHandle(Path file, FileChannel channel, boolean writable) {
+        this.file = file;
+        this.channel = channel;
+        this.writable = writable;
+    }
+
+    static RandomAccessHandle open(Path file, String mode, boolean mapped) throws IOException {
+        boolean writable;
+        switch (mode) {
+            case "r" -> writable = false;
+            case "rw" -> writable = true;
+            default -> throw new IllegalArgumentException("Unknown access mode: " + mode + " (expected \"r\" or \"rw\")");
+        }
+
+        FileChannel channel = writable
+            ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)
+            : FileChannel.open(file, StandardOpenOption.READ);
+
+        RandomAccessHandle handle = new RandomAccessHandle(file, channel, writable);
+        if (mapped) {
+            if (writable) {
+                channel.close();
+                throw new IllegalArgumentException("Memory mapping is only supported in \"r\" mode");
+            }
+            if (channel.size() > Integer.MAX_VALUE) {
+                channel.close();
+                throw new IOException("File too large to map: " + file);
+            }
+            handle.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        OPEN.add(handle);
+        return handle;
+    }
+
+    static byte[] readAt(FileChannel channel, long offset, int length) throws IOException {
+        long available = Math.max(0, channel.size() - offset);
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, available));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                break;
+            }
+        }
+        if (buffer.hasRemaining()) {
+            byte[] partial = new byte[buffer.position()];
+            buffer.flip().get(partial);
+            return partial;
+        }
+        return buffer.array();
+    }
+
+    static void writeAt(FileChannel channel, long offset, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    public static void closeAll() {
+        for (RandomAccessHandle handle : OPEN) {
+            handle.close();
+        }
+    }
+
+    public RandomAccessHandle littleEndian() {
+        order = ByteOrder.LITTLE_ENDIAN;
+        return this;
+    }
+
+    public RandomAccessHandle bigEndian() {
+        order = ByteOrder.BIG_ENDIAN;
+        return this;
+    }
+
+    public long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw failure("get size of", e);
+        }
+    }
+
+    public byte[] read(long offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must not be negative");
+        }
+        if (mapped != null) {
+            int start = (int) Math.min(offset, mapped.capacity());
+            byte[] bytes = new byte[Math.min(length, mapped.capacity() - start)];
+            mapped.get(start, bytes);
+            return bytes;
+        }
+        try (PathLocks.Held lock = PathLocks.read(file)) {
+            return readAt(channel, offset, length);
+        } catch (IOException e) {
+            throw failure("read", e);
+        }
+    }
+
+    public void write(long offset, byte[] bytes) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        checkWritable();
+        try (PathLocks.Held lock = PathLocks.write(file)) {
+            writeAt(channel, offset, bytes);
+        } catch (IOException e) {
+            throw failure("write", e);
+        }
+    }
+
+    public byte[] readRecord(long index, int recordSize) {
+        return read(index * recordSize, recordSize);
+    }
+
+    public void writeRecord(long index, int recordSize, byte[] bytes) {
+        if (bytes.length > recordSize) {
+            throw new IllegalArgumentException("Record is " + bytes.length + " bytes, larger than record size " + recordSize);
+        }
+        byte[] record = bytes.length == recordSize ? bytes : Arrays.copyOf(bytes, recordSize);
+        write(index * recordSize, record);
+    }
+
+    public long getRecordCount(int recordSize) {
+        return size() / recordSize;
+    }
+
+    public int readByte(long offset) {
+        return view(offset, Byte.BYTES).get();
+    }
+
+    public int readShort(long offset) {
+        return view(offset, Short.BYTES).getShort();
+    }
+
+    public int readInt(long offset) {
+        return view(offset, Integer.BYTES).getInt();
+    }
+
+    public long readLong(long offset) {
+        return view(offset, Long.BYTES).getLong();
+    }
+
+    public float readFloat(long offset) {
+        return view(offset, Float.BYTES).getFloat();
+    }
+
+    public double readDouble(long offset) {
+        return view(offset, Double.BYTES).getDouble();
+    }
+
+    public void writeByte(long offset, int value) {
+        write(offset, new byte[]{(byte) value});
+    }
+
+    public void writeShort(long offset, int value) {
+        write(offset, ByteBuffer.allocate(Short.BYTES).order(order).putShort((short) value).array());
+    }
+
+    public void writeInt(long offset, int value) {
+        write(offset, ByteBuffer.allocate(Integer.BYTES).order(order).putInt(value).array());
+    }
+
+    public void writeLong(long offset, long value) {
+        write(offset, ByteBuffer.allocate(Long.BYTES).order(order).putLong(value).array());
+    }
+
+    public void writeFloat(long offset, float value) {
+        write(offset, ByteBuffer.allocate(Float.BYTES).order(order).putFloat(value).array());
+    }
+
+    public void writeDouble(long offset, double value) {
+        write(offset, ByteBuffer.allocate(Double.BYTES).order(order).putDouble(value).array());
+    }
+
+    public void truncate(long size) {
+        checkWritable();
+        try (PathLocks.Held lock = PathLocks.write(file)) {
+            channel.truncate(size);
+        } catch (IOException e) {
+            throw failure("truncate", e);
+        }
+    }
+
+    public void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw failure("sync", e);
+        }
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    public void close() {
+        OPEN.remove(this);
+        mapped = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error closing file: " + file, e);
+        }
+    }
+
+    private ByteBuffer view(long offset, int length) {
+        byte[] bytes = read(offset, length);
+        if (bytes.length < length) {
+            throw failure("read", new EOFException("Only " + bytes.length + " of " + length + " bytes available at offset " + offset));
+        }
+        return ByteBuffer.wrap(bytes).order(order);
+    }
+
+    private void checkWritable() {
+        if (!writable) {
+            throw new IllegalStateException("File was opened read-only: " + file);
+        }
+    }
+
+    private RuntimeException failure(String action, IOException e) {
+        Filesjs.LOGGER.error("Error trying to " + action + " file: " + file, e);
+        return new RuntimeException("Failed to " + action + " file: " + file, e);
+    }
+}
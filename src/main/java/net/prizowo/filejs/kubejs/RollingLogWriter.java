@@ -0,0 +1,305 @@
+package net.prizowo.filejs.kubejs;
+
+import net.prizowo.filejs.Filesjs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+public class RollingLogWriter {
+    private static final Map<Path, RollingLogWriter> OPEN = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService IO = Executors.newSingleThreadScheduledExecutor(daemon("FilesJS-Log-IO"));
+    private static final ExecutorService COMPRESSOR = Executors.newSingleThreadExecutor(daemon("FilesJS-Log-Compress"));
+
+    static {
+        IO.scheduleWithFixedDelay(() -> OPEN.values().forEach(RollingLogWriter::drain), 1, 1, TimeUnit.SECONDS);
+    }
+
+    private final Path file;
+    private final String baseName;
+    private final String extension;
+    private final long maxSize;
+    private final boolean rotateDaily;
+    private final int maxFiles;
+    private final long maxAgeMillis;
+    private final boolean compress;
+    private final int bufferSize;
+    private final Pattern segmentPattern;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private volatile boolean closed = false;
+
+    // Only touched from the IO thread
+    private long currentSize;
+    private LocalDate currentDay;
+
+    private RollingLogWriter(Path file, Map<String, Object> options) throws IOException {
+        this.file = file;
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        this.baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        this.extension = dot > 0 ? fileName.substring(dot) : "";
+        this.maxSize = getLong(options, "maxSize", 10L * 1024 * 1024);
+        this.rotateDaily = getBoolean(options, "rotateDaily", true);
+        this.maxFiles = (int) getLong(options, "maxFiles", 10);
+        this.maxAgeMillis = TimeUnit.DAYS.toMillis(getLong(options, "maxAgeDays", 0));
+        this.compress = getBoolean(options, "compress", true);
+        this.bufferSize = (int) getLong(options, "bufferSize", 8192);
+        this.segmentPattern = Pattern.compile("(" + Pattern.quote(baseName) + "\\.(\\d{4}-\\d{2}-\\d{2})\\.(\\d+)"
+            + Pattern.quote(extension) + ")(\\.gz)?");
+
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        if (Files.exists(file)) {
+            currentSize = Files.size(file);
+            currentDay = toDay(Files.getLastModifiedTime(file).toMillis());
+        } else {
+            currentSize = 0;
+            currentDay = LocalDate.now();
+        }
+    }
+
+    static RollingLogWriter open(Path file, Map<String, Object> options) throws IOException {
+        RollingLogWriter existing = OPEN.get(file);
+        if (existing != null) {
+            return existing;
+        }
+
+        RollingLogWriter writer = new RollingLogWriter(file, options);
+        RollingLogWriter raced = OPEN.putIfAbsent(file, writer);
+        return raced != null ? raced : writer;
+    }
+
+    public static void closeAll() {
+        OPEN.values().forEach(RollingLogWriter::close);
+        try {
+            IO.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Filesjs.LOGGER.error("Error waiting for log writers to flush", e);
+        }
+    }
+
+    public void write(String text) {
+        if (closed) {
+            throw new IllegalStateException("Log is closed: " + file);
+        }
+
+        boolean full;
+        synchronized (buffer) {
+            buffer.append(text);
+            full = buffer.length() >= bufferSize;
+        }
+
+        if (full) {
+            IO.execute(this::drain);
+        }
+    }
+
+    public void writeLine(String line) {
+        write(line + System.lineSeparator());
+    }
+
+    public void flush() {
+        IO.execute(this::drain);
+    }
+
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        OPEN.remove(file, this);
+        IO.execute(this::drain);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getPath() {
+        return file.toString();
+    }
+
+    private void drain() {
+        String pending;
+        synchronized (buffer) {
+            if (buffer.length() == 0) {
+                return;
+            }
+            pending = buffer.toString();
+            buffer.setLength(0);
+        }
+
+        try {
+            byte[] bytes = pending.getBytes(StandardCharsets.UTF_8);
+            LocalDate today = LocalDate.now();
+            boolean dayChanged = rotateDaily && !today.equals(currentDay);
+            boolean sizeExceeded = maxSize > 0 && currentSize > 0 && currentSize + bytes.length > maxSize;
+
+            try (PathLocks.Held lock = PathLocks.write(file)) {
+                if (dayChanged || sizeExceeded) {
+                    rotate();
+                }
+                Files.write(file, bytes, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+            }
+            currentSize += bytes.length;
+            currentDay = today;
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error writing log: " + file, e);
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (!Files.exists(file)) {
+            currentSize = 0;
+            return;
+        }
+
+        Path segment = nextSegment();
+        Files.move(file, segment, StandardCopyOption.REPLACE_EXISTING);
+        currentSize = 0;
+
+        if (compress) {
+            COMPRESSOR.execute(() -> {
+                compressSegment(segment);
+                applyRetention();
+            });
+        } else {
+            applyRetention();
+        }
+    }
+
+    // Numbers keep rising through the day even after retention removes the oldest segments
+    private Path nextSegment() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        String day = currentDay.toString();
+        long highest = 0;
+        try (Stream<Path> stream = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                Matcher matcher = segmentPattern.matcher(path.getFileName().toString());
+                if (matcher.matches() && matcher.group(2).equals(day)) {
+                    highest = Math.max(highest, Long.parseLong(matcher.group(3)));
+                }
+            }
+        }
+        return dir.resolve(baseName + "." + day + "." + (highest + 1) + extension);
+    }
+
+    private void compressSegment(Path segment) {
+        // Retention may already have removed a segment that was still waiting to be compressed
+        if (!Files.exists(segment)) {
+            return;
+        }
+
+        Path target = segment.resolveSibling(segment.getFileName() + ".gz");
+        try (InputStream in = Files.newInputStream(segment);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), 8192)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error compressing log segment: " + segment, e);
+            return;
+        }
+
+        try {
+            Files.delete(segment);
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error deleting compressed log segment: " + segment, e);
+        }
+    }
+
+    private synchronized void applyRetention() {
+        Path dir = file.toAbsolutePath().getParent();
+
+        // A segment that is still being compressed exists as both name and name.gz, count it once
+        Map<String, List<Path>> segments = new HashMap<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            stream.forEach(path -> {
+                Matcher matcher = segmentPattern.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.computeIfAbsent(matcher.group(1), key -> new ArrayList<>()).add(path);
+                }
+            });
+        } catch (IOException e) {
+            Filesjs.LOGGER.error("Error listing log segments: " + file, e);
+            return;
+        }
+
+        List<List<Path>> ordered = segments.values().stream()
+            .sorted((a, b) -> Long.compare(lastModified(b), lastModified(a)))
+            .collect(Collectors.toList());
+
+        long cutoff = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        for (int i = 0; i < ordered.size(); i++) {
+            List<Path> segment = ordered.get(i);
+            if ((maxFiles > 0 && i >= maxFiles) || lastModified(segment) < cutoff) {
+                for (Path path : segment) {
+                    try {
+                        Files.deleteIfExists(path);
+                    } catch (IOException e) {
+                        Filesjs.LOGGER.error("Error deleting old log segment: " + path, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long lastModified(List<Path> segment) {
+        return segment.stream().mapToLong(RollingLogWriter::lastModified).max().orElse(0);
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static LocalDate toDay(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private static long getLong(Map<String, Object> options, String key, long defaultValue) {
+        Object value = options == null ? null : options.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    private static boolean getBoolean(Map<String, Object> options, String key, boolean defaultValue) {
+        Object value = options == null ? null : options.get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}